@@ -35,9 +35,13 @@ public class AuthenticationService implements UserDetailsService {
          *                  Diante disso, fazemos a verificação se o user.isPresente() ou seja, se encontrou o usuário
          *                  informado, caso tenha encontrado retorne o usuário (return user.get()) caso contrário
          *                  lance uma exception com uma mensagem de erro.
+         *
+         *  User.normalizeUsername: O username é salvo normalizado, então o valor digitado precisa passar pela mesma
+         *                  normalização antes da consulta, pra que "Admin " e "admin" encontrem o mesmo usuário
+         *                  pelo índice único.
          */
 
-        Optional<User> user = repository.findByUsername(username);
+        Optional<User> user = repository.findByUsername(User.normalizeUsername(username));
 
         if(user.isPresent())
             return user.get();
@@ -0,0 +1,109 @@
+package com.example.security.migrations;
+
+import com.example.security.models.User;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+public class V2__NormalizeUsernameUniqueIndex extends BaseJavaMigration {
+
+    /*  Cria o índice único uk_user_username, usado pelo findByUsername do login.
+     *
+     *  A migration é em Java (e não em SQL) pra normalizar os usernames existentes com o mesmo
+     *  User.normalizeUsername usado no login. O TRIM/LOWER do MySQL não tratam tab, quebra de linha e alguns
+     *  caracteres não ASCII do mesmo jeito que o Java, e um usuário salvo como "\tadmin" nunca mais conseguiria logar.
+     *
+     *  Nenhum username é renomeado automaticamente. A migration é abortada, listando os ids, quando:
+     *      - o username é nulo, vazio ou passa de 255 caracteres depois de normalizado;
+     *      - dois ou mais usuários ficam com o mesmo username depois de normalizados (pela collation da coluna,
+     *        que é a mesma que o índice único usa).
+     *      ps.: Os updates rodam na transação da migration, então ao abortar nada é alterado. Depois que os
+     *           usernames forem corrigidos manualmente, é só subir a aplicação de novo.
+     */
+
+    private static final int PAGE_SIZE = 10_000;
+    private static final int MAX_LENGTH = 255;
+    private static final int MAX_LISTED = 100;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+
+        List<Integer> invalid = normalizeUsernames(connection);
+        if (!invalid.isEmpty())
+            throw new IllegalStateException("Usernames nulos, vazios ou com mais de " + MAX_LENGTH
+                    + " caracteres, corrija antes de migrar. Ids: " + invalid);
+
+        List<String> duplicates = findDuplicates(connection);
+        if (!duplicates.isEmpty())
+            throw new IllegalStateException("Usernames duplicados após a normalização, corrija antes de migrar. "
+                    + "Ids por username: " + duplicates);
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE user MODIFY username VARCHAR(255) NOT NULL");
+            statement.execute("CREATE UNIQUE INDEX uk_user_username ON user (username)");
+        }
+    }
+
+    // Percorre a tabela por páginas de id, atualiza os usernames que mudam e devolve os ids inválidos.
+    private List<Integer> normalizeUsernames(Connection connection) throws SQLException {
+        List<Integer> invalid = new ArrayList<>();
+        int lastId = 0;
+
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT id, username FROM user WHERE id > ? ORDER BY id LIMIT " + PAGE_SIZE);
+             PreparedStatement update = connection.prepareStatement(
+                     "UPDATE user SET username = ? WHERE id = ?")) {
+
+            boolean hasRows = true;
+            while (hasRows) {
+                hasRows = false;
+                select.setInt(1, lastId);
+
+                try (ResultSet rows = select.executeQuery()) {
+                    while (rows.next()) {
+                        hasRows = true;
+                        lastId = rows.getInt("id");
+                        String username = rows.getString("username");
+                        String normalized = User.normalizeUsername(username);
+
+                        if (normalized == null || normalized.isEmpty() || normalized.length() > MAX_LENGTH) {
+                            if (invalid.size() < MAX_LISTED)
+                                invalid.add(lastId);
+                        } else if (!normalized.equals(username)) {
+                            update.setString(1, normalized);
+                            update.setInt(2, lastId);
+                            update.addBatch();
+                        }
+                    }
+                }
+
+                update.executeBatch();
+            }
+        }
+
+        return invalid;
+    }
+
+    private List<String> findDuplicates(Connection connection) throws SQLException {
+        List<String> duplicates = new ArrayList<>();
+
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery(
+                     "SELECT username, GROUP_CONCAT(id ORDER BY id) AS ids FROM user "
+                             + "GROUP BY username HAVING COUNT(*) > 1 LIMIT " + MAX_LISTED)) {
+
+            while (rows.next())
+                duplicates.add(rows.getString("username") + "=[" + rows.getString("ids") + "]");
+        }
+
+        return duplicates;
+    }
+}
@@ -11,8 +11,10 @@ import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 
 @Entity
+@Table(indexes = @Index(name = "uk_user_username", columnList = "username", unique = true))
 @Data
 @Builder
 @NoArgsConstructor
@@ -26,10 +28,27 @@ public class User implements UserDetails {
 
     private String name;
 
+    /*  username: Único por usuário e sempre salvo normalizado (sem espaços nas pontas e em minúsculo), assim o
+     *  índice uk_user_username atende o findByUsername do login sem precisar varrer a tabela inteira.
+     *      ps.: O @Builder não passa pelos setters, por isso a normalização é feita no @PrePersist/@PreUpdate.
+     *      ps2.: O índice e o NOT NULL são criados pela migration V2__NormalizeUsernameUniqueIndex, que
+     *            também normaliza os usernames já cadastrados. O @Table/@Column aqui só descrevem o schema.
+     */
+    @Column(nullable = false)
     private String username;
 
     private String password;
 
+    public static String normalizeUsername(String username) {
+        return username == null ? null : username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @PrePersist
+    @PreUpdate
+    private void normalize() {
+        this.username = normalizeUsername(this.username);
+    }
+
     /*  A classe precisa implementar o UserDetails, pra mostrar ao Spring Security onde
      *  está representado os detalhes(Details) para autenticações de usuários.
      *
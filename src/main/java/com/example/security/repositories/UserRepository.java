@@ -1,6 +1,7 @@
 package com.example.security.repositories;
 
 import com.example.security.models.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -9,6 +10,8 @@ import java.util.Optional;
 @Repository
 public interface UserRepository extends JpaRepository<User, Integer> {
 
+    // @EntityGraph: Carrega os perfis no mesmo select (left join), evitando uma segunda consulta a cada login.
+    @EntityGraph(attributePaths = "perfis")
     Optional<User> findByUsername(String username);
 
 }
@@ -3,9 +3,14 @@ package com.example.security.services;
 import com.example.security.models.User;
 import com.example.security.repositories.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
 
 @Service
 public class UserService {
@@ -17,8 +22,38 @@ public class UserService {
         return repository.findById(id).orElse(null);
     }
 
+    /*  save(): O username é único (índice uk_user_username), então antes de salvar é verificado se ele foi
+     *  informado e se já não pertence a outro usuário.
+     *      ps.: A verificação é feita com o username normalizado, pois é assim que ele fica salvo no banco.
+     *      ps2.: Caso dois cadastros iguais cheguem ao mesmo tempo, o índice barra o segundo, e o erro também
+     *            é devolvido como CONFLICT. Qualquer outra violação de integridade é relançada.
+     */
     public User save(User user) {
-        return repository.save(user);
+        String username = User.normalizeUsername(user.getUsername());
+
+        if (username == null || username.isEmpty())
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Username obrigatório!");
+
+        Optional<User> existing = repository.findByUsername(username);
+
+        if (existing.isPresent() && !existing.get().getId().equals(user.getId()))
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Username já cadastrado!");
+
+        user.setUsername(username);
+
+        try {
+            return repository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            if (isUsernameConflict(e))
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Username já cadastrado!", e);
+            throw e;
+        }
+    }
+
+    // Só a violação do índice uk_user_username é conflito de username, outras violações (FK de perfis, etc.) seguem.
+    private boolean isUsernameConflict(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase(Locale.ROOT).contains("uk_user_username");
     }
 
     public List<User> getAll() {
@@ -0,0 +1,24 @@
+-- Schema inicial, igual ao que era gerado pelo Hibernate (generate-ddl).
+-- Bancos que já possuem essas tabelas recebem o baseline na versão 1 (spring.flyway.baseline-on-migrate),
+-- então este script só roda em bancos vazios.
+
+CREATE TABLE IF NOT EXISTS perfil (
+    id   INT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS user (
+    id       INT NOT NULL AUTO_INCREMENT,
+    name     VARCHAR(255),
+    password VARCHAR(255),
+    username VARCHAR(255),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE IF NOT EXISTS user_perfis (
+    user_id   INT NOT NULL,
+    perfis_id INT NOT NULL,
+    CONSTRAINT fk_user_perfis_perfil FOREIGN KEY (perfis_id) REFERENCES perfil (id),
+    CONSTRAINT fk_user_perfis_user FOREIGN KEY (user_id) REFERENCES user (id)
+) ENGINE = InnoDB;
@@ -0,0 +1,24 @@
+package com.example.security.benchmark;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/*  Guarda o último select por username gerado pelo Hibernate, pra que o UsernameLookupBenchmark faça o EXPLAIN
+ *  exatamente da consulta que o login executa (com o join dos perfis do @EntityGraph).
+ */
+public class LookupSqlInspector implements StatementInspector {
+
+	private static volatile String lastLookup;
+
+	public static String getLastLookup() {
+		return lastLookup;
+	}
+
+	@Override
+	public String inspect(String sql) {
+		String lower = sql.toLowerCase();
+		if (lower.startsWith("select") && lower.contains(".username=?"))
+			lastLookup = sql;
+		return sql;
+	}
+
+}
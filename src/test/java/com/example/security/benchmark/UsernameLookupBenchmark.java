@@ -0,0 +1,163 @@
+package com.example.security.benchmark;
+
+import com.example.security.config.AuthenticationService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.IfProfileValue;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/*  Benchmark do login (loadUserByUsername) com e sem o índice uk_user_username.
+ *
+ *  Não roda no build normal: o nome não segue o padrão *Test/*Tests do surefire e a classe só é executada com
+ *  -Dbenchmark=true. O banco é sempre o informado em -Dbenchmark.datasource.url (sem ele o contexto não sobe),
+ *  o nome do schema precisa conter "benchmark" e todos os usuários dele precisam ser "benchmark<n>", assim o
+ *  benchmark nunca popula nem remove o índice do banco de desenvolvimento. As migrations são aplicadas pelo
+ *  Flyway ao subir o contexto, e os usuários ficam salvos para as próximas execuções.
+ *
+ *  Exemplo (1M e depois 10M de usuários):
+ *      mvn test -Dtest=UsernameLookupBenchmark -Dbenchmark=true -Dbenchmark.users=1000000 \
+ *          -Dbenchmark.datasource.url="jdbc:mysql://localhost:3306/securityBenchmark?serverTimezone=UTC&createDatabaseIfNotExist=true&rewriteBatchedStatements=true"
+ *      mvn test -Dtest=UsernameLookupBenchmark -Dbenchmark=true -Dbenchmark.users=10000000 -Dbenchmark.datasource.url=...
+ *
+ *  benchmark.datasource.username/benchmark.datasource.password: Usuário e senha do banco (padrão os do
+ *                  application.properties);
+ *  benchmark.users: Quantidade de usuários no banco (padrão 1.000.000);
+ *  benchmark.lookups: Quantidade de logins medidos com índice (padrão 1.000);
+ *  benchmark.scanLookups: Quantidade de logins medidos sem índice, cada um varre a tabela inteira (padrão 20);
+ *
+ *  O EXPLAIN é feito no select que o Hibernate realmente gera para o findByUsername (capturado pelo
+ *  LookupSqlInspector), impresso nos dois cenários, e com índice é verificado se o MySQL usa o uk_user_username.
+ *  O índice é removido só durante a medição sem índice e recriado no final, mesmo se der erro.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+		"spring.datasource.url=${benchmark.datasource.url}",
+		"spring.datasource.username=${benchmark.datasource.username:root}",
+		"spring.datasource.password=${benchmark.datasource.password:1234}",
+		"spring.jpa.show-sql=false",
+		"spring.jpa.properties.hibernate.session_factory.statement_inspector="
+				+ "com.example.security.benchmark.LookupSqlInspector"
+})
+@IfProfileValue(name = "benchmark", value = "true")
+public class UsernameLookupBenchmark {
+
+	private static final String PASSWORD = "$2a$10$8BzMQT6rGz4DmrjXI3JLYu3vlZXP1l9JWRbzB3VGOh5ZFG5KnWNX6";
+	private static final int BATCH_SIZE = 10_000;
+
+	private final int users = Integer.getInteger("benchmark.users", 1_000_000);
+	private final int lookups = Integer.getInteger("benchmark.lookups", 1_000);
+	private final int scanLookups = Integer.getInteger("benchmark.scanLookups", 20);
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private AuthenticationService authenticationService;
+
+	@Test
+	public void loginLookup() {
+		checkDedicatedDatabase();
+		seed();
+
+		assertTrue("O login não usa o índice uk_user_username", explain("com índice").stream()
+				.anyMatch(row -> "uk_user_username".equals(row.get("key"))));
+		long[] indexed = measure(lookups);
+
+		long[] scan;
+		jdbcTemplate.execute("DROP INDEX uk_user_username ON user");
+		try {
+			explain("sem índice");
+			scan = measure(scanLookups);
+		} finally {
+			jdbcTemplate.execute("CREATE UNIQUE INDEX uk_user_username ON user (username)");
+		}
+
+		System.out.printf("%n%,d usuários%n", users);
+		print("com índice", indexed);
+		print("sem índice", scan);
+	}
+
+	// Recusa rodar em um banco que não seja exclusivo do benchmark.
+	private void checkDedicatedDatabase() {
+		String database = jdbcTemplate.queryForObject("SELECT DATABASE()", String.class);
+		assertTrue("O schema do benchmark precisa conter \"benchmark\" no nome: " + database,
+				database != null && database.toLowerCase(Locale.ROOT).contains("benchmark"));
+
+		int others = jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM user WHERE username NOT LIKE 'benchmark%'", Integer.class);
+		assertEquals("O schema " + database + " possui usuários que não são do benchmark", 0, others);
+	}
+
+	// Insere os usuários "benchmark<n>" que ainda não existem, em lotes.
+	private void seed() {
+		int existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user", Integer.class);
+
+		List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+		for (int i = existing; i < users; i++) {
+			batch.add(new Object[]{"Benchmark " + i, "benchmark" + i, PASSWORD});
+
+			if (batch.size() == BATCH_SIZE || i == users - 1) {
+				jdbcTemplate.batchUpdate("INSERT INTO user (name, username, password) VALUES (?, ?, ?)", batch);
+				batch.clear();
+			}
+		}
+	}
+
+	private List<Map<String, Object>> explain(String scenario) {
+		authenticationService.loadUserByUsername("benchmark0");
+		String sql = LookupSqlInspector.getLastLookup();
+		assertNotNull("Select do findByUsername não capturado", sql);
+
+		List<Map<String, Object>> plan = jdbcTemplate.queryForList("EXPLAIN " + sql, "benchmark0");
+
+		System.out.printf("%nSQL: %s%n", sql);
+		for (Map<String, Object> row : plan)
+			System.out.printf("EXPLAIN (%s): %s%n", scenario, row);
+		return plan;
+	}
+
+	// Tempo de cada loadUserByUsername em nanossegundos, ordenado. O username é enviado em maiúsculo,
+	// pra medir também a normalização.
+	private long[] measure(int count) {
+		Random random = new Random(42);
+
+		for (int i = 0; i < Math.min(count, 10); i++)
+			authenticationService.loadUserByUsername("BENCHMARK" + random.nextInt(users));
+
+		long[] times = new long[count];
+		for (int i = 0; i < count; i++) {
+			String username = "BENCHMARK" + random.nextInt(users);
+
+			long start = System.nanoTime();
+			authenticationService.loadUserByUsername(username);
+			times[i] = System.nanoTime() - start;
+		}
+
+		Arrays.sort(times);
+		return times;
+	}
+
+	private void print(String scenario, long[] times) {
+		double average = Arrays.stream(times).average().orElse(0) / 1_000_000;
+		double p50 = times[times.length / 2] / 1_000_000.0;
+		double p99 = times[(int) Math.min(times.length - 1, Math.ceil(times.length * 0.99) - 1)] / 1_000_000.0;
+
+		System.out.printf("%s: %d logins, média %.3f ms, p50 %.3f ms, p99 %.3f ms%n",
+				scenario, times.length, average, p50, p99);
+	}
+
+}
@@ -0,0 +1,106 @@
+package com.example.security.migrations;
+
+import com.example.security.models.User;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/*  Testa a migration V2__NormalizeUsernameUniqueIndex num H2 em modo MySQL: aplica as migrations até a V1,
+ *  insere os usuários e depois aplica a V2.
+ */
+public class NormalizeUsernameMigrationTest {
+
+	private DriverManagerDataSource dataSource;
+	private JdbcTemplate jdbcTemplate;
+
+	@Before
+	public void createDatabase() {
+		dataSource = new DriverManagerDataSource(
+				"jdbc:h2:mem:" + UUID.randomUUID().toString().replace("-", "") + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+
+		flyway("1").migrate();
+	}
+
+	@Test
+	public void migrationNormalizesLikeLogin() {
+		List<String> usernames = Arrays.asList(" Admin ", "\tjoao\r\n", "MARIA", "ÀNGELA", "Straße", "ok");
+		for (String username : usernames)
+			insert(username);
+
+		flyway(null).migrate();
+
+		List<String> stored = jdbcTemplate.queryForList("SELECT username FROM user ORDER BY id", String.class);
+		for (int i = 0; i < usernames.size(); i++)
+			assertEquals(User.normalizeUsername(usernames.get(i)), stored.get(i));
+	}
+
+	@Test
+	public void migrationCreatesUniqueIndex() {
+		insert("admin");
+		flyway(null).migrate();
+
+		try {
+			insert("admin");
+			fail("Esperado erro de violação do índice uk_user_username");
+		} catch (RuntimeException e) {
+			assertTrue(e.getMessage(), e.getMessage().toUpperCase().contains("UK_USER_USERNAME"));
+		}
+	}
+
+	@Test
+	public void migrationAbortsOnDuplicatesWithoutChangingRows() {
+		insert("admin");
+		insert(" Admin ");
+		insert("outro");
+
+		assertAborts("[1,2]");
+		assertEquals(" Admin ", jdbcTemplate.queryForObject("SELECT username FROM user WHERE id = 2", String.class));
+	}
+
+	@Test
+	public void migrationAbortsOnBlankUsernames() {
+		insert("admin");
+		insert(" \t ");
+		insert(null);
+
+		assertAborts("[2, 3]");
+	}
+
+	private void assertAborts(String ids) {
+		try {
+			flyway(null).migrate();
+			fail("Esperado erro na migration V2");
+		} catch (FlywayException e) {
+			StringBuilder messages = new StringBuilder();
+			for (Throwable cause = e; cause != null; cause = cause.getCause())
+				messages.append(cause.getMessage()).append('\n');
+
+			assertTrue(messages.toString(), messages.toString().contains(ids));
+		}
+	}
+
+	private void insert(String username) {
+		jdbcTemplate.update("INSERT INTO user (name, username, password) VALUES ('Usuário', ?, '123')", username);
+	}
+
+	private Flyway flyway(String target) {
+		return Flyway.configure()
+				.dataSource(dataSource)
+				.locations("classpath:db/migration", "classpath:com/example/security/migrations")
+				.target(target == null ? "latest" : target)
+				.load();
+	}
+
+}
@@ -0,0 +1,43 @@
+package com.example.security.models;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class UserTest {
+
+	private final Locale defaultLocale = Locale.getDefault();
+
+	@After
+	public void restoreLocale() {
+		Locale.setDefault(defaultLocale);
+	}
+
+	@Test
+	public void normalizeUsernameKeepsNull() {
+		assertNull(User.normalizeUsername(null));
+	}
+
+	@Test
+	public void normalizeUsernameTrimsSurroundingWhitespace() {
+		assertEquals("admin", User.normalizeUsername("  admin\t"));
+	}
+
+	@Test
+	public void normalizeUsernameLowersMixedCase() {
+		assertEquals("admin", User.normalizeUsername("AdMiN"));
+	}
+
+	@Test
+	public void normalizeUsernameIgnoresDefaultLocale() {
+		Locale.setDefault(new Locale("tr", "TR"));
+
+		assertEquals("admin", User.normalizeUsername("ADMIN"));
+		assertEquals("i", User.normalizeUsername("I"));
+	}
+
+}
@@ -0,0 +1,83 @@
+package com.example.security.repositories;
+
+import com.example.security.config.AuthenticationService;
+import com.example.security.models.User;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.PersistenceException;
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/*  As migrations do Flyway são escritas para MySQL, então no H2 o schema é gerado pelo Hibernate a partir do
+ *  mapeamento da entidade (incluindo o índice uk_user_username declarado no @Table).
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Import(AuthenticationService.class)
+@TestPropertySource(properties = {
+		"spring.flyway.enabled=false",
+		"spring.jpa.hibernate.ddl-auto=create-drop"
+})
+public class UserRepositoryTest {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private AuthenticationService authenticationService;
+
+	@Test
+	public void persistStoresNormalizedUsername() {
+		User user = entityManager.persistFlushFind(user(" Admin "));
+
+		assertEquals("admin", user.getUsername());
+	}
+
+	@Test
+	public void loadUserByUsernameNormalizesLookup() {
+		User user = entityManager.persistAndFlush(user(" Admin "));
+		entityManager.clear();
+
+		UserDetails found = authenticationService.loadUserByUsername("ADMIN");
+
+		assertEquals(user.getId(), ((User) found).getId());
+	}
+
+	@Test
+	public void duplicateUsernameViolatesUniqueIndex() {
+		entityManager.persistAndFlush(user(" Admin "));
+
+		try {
+			entityManager.persistAndFlush(user("admin"));
+			fail("Esperado erro de violação do índice uk_user_username");
+		} catch (PersistenceException e) {
+			StringBuilder messages = new StringBuilder();
+			for (Throwable cause = e; cause != null; cause = cause.getCause())
+				messages.append(cause.getMessage()).append('\n');
+
+			String message = messages.toString().toUpperCase();
+			assertTrue(message, message.contains("UK_USER_USERNAME"));
+		}
+	}
+
+	private User user(String username) {
+		return User.builder()
+				.name("Administrador")
+				.username(username)
+				.password("$2a$10$8BzMQT6rGz4DmrjXI3JLYu3vlZXP1l9JWRbzB3VGOh5ZFG5KnWNX6")
+				.perfis(new ArrayList<>())
+				.build();
+	}
+
+}
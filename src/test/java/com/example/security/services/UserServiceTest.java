@@ -0,0 +1,92 @@
+package com.example.security.services;
+
+import com.example.security.models.User;
+import com.example.security.repositories.UserRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UserServiceTest {
+
+	@Mock
+	private UserRepository repository;
+
+	@InjectMocks
+	private UserService service;
+
+	@Test
+	public void saveRejectsBlankUsername() {
+		assertStatus(HttpStatus.BAD_REQUEST, user(null, "   "));
+		verify(repository, never()).save(any());
+	}
+
+	@Test
+	public void saveRejectsUsernameOfAnotherUser() {
+		when(repository.findByUsername("admin")).thenReturn(Optional.of(user(1, "admin")));
+
+		assertStatus(HttpStatus.CONFLICT, user(null, " Admin "));
+		verify(repository, never()).save(any());
+	}
+
+	@Test
+	public void saveAcceptsSameUserWithNormalizedUsername() {
+		User user = user(1, " Admin ");
+		when(repository.findByUsername("admin")).thenReturn(Optional.of(user(1, "admin")));
+		when(repository.save(user)).thenReturn(user);
+
+		assertSame(user, service.save(user));
+		assertEquals("admin", user.getUsername());
+	}
+
+	@Test
+	public void saveTurnsUniqueIndexViolationIntoConflict() {
+		User user = user(null, "admin");
+		when(repository.findByUsername("admin")).thenReturn(Optional.empty());
+		when(repository.save(user)).thenThrow(new DataIntegrityViolationException("could not execute statement",
+				new SQLIntegrityConstraintViolationException("Duplicate entry 'admin' for key 'uk_user_username'")));
+
+		assertStatus(HttpStatus.CONFLICT, user);
+	}
+
+	@Test(expected = DataIntegrityViolationException.class)
+	public void saveRethrowsOtherIntegrityViolations() {
+		User user = user(null, "admin");
+		when(repository.findByUsername("admin")).thenReturn(Optional.empty());
+		when(repository.save(user)).thenThrow(new DataIntegrityViolationException("could not execute statement",
+				new SQLIntegrityConstraintViolationException("Cannot add or update a child row: "
+						+ "a foreign key constraint fails (fk_user_perfis_perfil)")));
+
+		service.save(user);
+	}
+
+	private void assertStatus(HttpStatus status, User user) {
+		try {
+			service.save(user);
+			fail("Esperado " + status);
+		} catch (ResponseStatusException e) {
+			assertEquals(status, e.getStatus());
+		}
+	}
+
+	private User user(Integer id, String username) {
+		return User.builder().id(id).name("Administrador").username(username).build();
+	}
+
+}